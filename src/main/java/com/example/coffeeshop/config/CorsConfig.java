@@ -16,7 +16,7 @@ public class CorsConfig implements WebMvcConfigurer {
                         // For a public demo, you could use "*" but it's less secure
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("Content-Type", "X-Customer-Id", "X-Customer-Type") // IMPORTANT: Allow your custom headers
+                .allowedHeaders("Content-Type", "X-Customer-Id", "X-Customer-Type", "Idempotency-Key") // IMPORTANT: Allow your custom headers
                 .allowCredentials(false)
                 .maxAge(3600);
     }
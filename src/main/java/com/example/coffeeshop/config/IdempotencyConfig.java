@@ -0,0 +1,36 @@
+package com.example.coffeeshop.config;
+
+import com.example.coffeeshop.model.IdempotentRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for Idempotent order placement
+ *
+ * Real-world analogy:
+ * - Like the barista remembering "you already ordered that latte a minute ago"
+ *   when a customer repeats themselves because they didn't hear the confirmation
+ * - Only recent orders are remembered, and only so many of them
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    /**
+     * Cache of recently completed Idempotency-Key requests and their responses
+     * Bounded in size and evicted after the TTL so abusive key churn cannot grow it forever
+     */
+    @Bean
+    public Cache<String, IdempotentRequest> idempotencyCache(
+            @Value("${idempotency.max-keys:10000}") long maxKeys,
+            @Value("${idempotency.ttl-minutes:10}") long ttlMinutes) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+}
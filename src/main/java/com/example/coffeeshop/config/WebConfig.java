@@ -1,22 +1,42 @@
 package com.example.coffeeshop.config;
 
+import com.example.coffeeshop.filter.CachedBodyFilter;
+import com.example.coffeeshop.interceptor.IdempotencyInterceptor;
 import com.example.coffeeshop.interceptor.RateLimitInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * Web configuration to register the rate limit interceptor
+ * Web configuration to register the idempotency and rate limit interceptors
+ * and the body buffering filter they rely on
  */
 @Configuration
 @RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final IdempotencyInterceptor idempotencyInterceptor;
     private final RateLimitInterceptor rateLimitInterceptor;
 
+    /**
+     * Buffer order bodies so the idempotency check can fingerprint them
+     */
+    @Bean
+    public FilterRegistrationBean<CachedBodyFilter> cachedBodyFilter() {
+        FilterRegistrationBean<CachedBodyFilter> registration = new FilterRegistrationBean<>(new CachedBodyFilter());
+        registration.addUrlPatterns("/api/coffee/order");
+        return registration;
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Registered first so replayed orders never reach the rate limiter
+        registry.addInterceptor(idempotencyInterceptor)
+                .addPathPatterns("/api/coffee/order");
+
         registry.addInterceptor(rateLimitInterceptor)
                 .addPathPatterns("/api/**") // Apply to all API endpoints
                 .excludePathPatterns("/api/public/**"); // Exclude public endpoints
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Coffee Shop REST API Controller
@@ -24,13 +25,14 @@ import java.util.*;
 @RequiredArgsConstructor
 @Slf4j
 @CrossOrigin(origins = {"http://localhost:8080", "http://127.0.0.1:5500", "null"},
-        allowedHeaders = {"Content-Type", "X-Customer-Id", "X-Customer-Type"})
+        allowedHeaders = {"Content-Type", "X-Customer-Id", "X-Customer-Type", "Idempotency-Key"})
 public class CoffeeShopController {
 
     private final RateLimiterService rateLimiterService;
-    private final Map<String, List<CoffeeOrder>> orderHistory = new HashMap<>();
+    private final Map<String, List<CoffeeOrder>> orderHistory = new ConcurrentHashMap<>();
 
     @PostMapping("/order")
+    @Idempotent
     public ResponseEntity<?> placeOrder(
             @RequestHeader(value = "X-Customer-Id", defaultValue = "anonymous") String customerId,
             @RequestBody Map<String, Object> orderRequest) {
@@ -54,7 +56,7 @@ public class CoffeeShopController {
         );
 
         // Store order
-        orderHistory.computeIfAbsent(customerId, k -> new ArrayList<>()).add(order);
+        orderHistory.computeIfAbsent(customerId, k -> Collections.synchronizedList(new ArrayList<>())).add(order);
 
         log.info("Order placed successfully: {}", order.getOrderId());
 
@@ -71,7 +73,14 @@ public class CoffeeShopController {
     public ResponseEntity<?> getOrders(
             @RequestHeader(value = "X-Customer-Id", defaultValue = "anonymous") String customerId) {
 
-        List<CoffeeOrder> orders = orderHistory.getOrDefault(customerId, new ArrayList<>());
+        // Copy under the list's lock so concurrent orders can't break serialization
+        List<CoffeeOrder> orders = new ArrayList<>();
+        List<CoffeeOrder> history = orderHistory.get(customerId);
+        if (history != null) {
+            synchronized (history) {
+                orders.addAll(history);
+            }
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("customerId", customerId);
@@ -0,0 +1,53 @@
+package com.example.coffeeshop.controller;
+
+import com.example.coffeeshop.interceptor.IdempotencyInterceptor;
+import com.example.coffeeshop.model.IdempotentRequest;
+import com.example.coffeeshop.model.IdempotentRequest.CachedResponse;
+import com.example.coffeeshop.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Records the response of an {@link Idempotent} handler claimed by {@link IdempotencyInterceptor}
+ * so retries with the same Idempotency-Key get it back
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class IdempotencyResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final IdempotencyService idempotencyService;
+
+    @Override
+    public boolean supports(MethodParameter returnType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(Idempotent.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+
+        // Only requests that carried an Idempotency-Key have a claim
+        Object claim = ((ServletServerHttpRequest) request).getServletRequest()
+                .getAttribute(IdempotencyInterceptor.IDEMPOTENCY_CLAIM_ATTRIBUTE);
+        int status = ((ServletServerHttpResponse) response).getServletResponse().getStatus();
+
+        // Failed orders are not remembered, the claim is released so a retry can succeed
+        if (claim != null && status >= 200 && status < 300) {
+            idempotencyService.complete((IdempotentRequest) claim, new CachedResponse(status, body));
+        }
+        return body;
+    }
+}
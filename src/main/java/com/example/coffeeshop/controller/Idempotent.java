@@ -0,0 +1,18 @@
+package com.example.coffeeshop.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose response is recorded for Idempotency-Key replays
+ *
+ * The path must also be registered for the idempotency interceptor in WebConfig
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
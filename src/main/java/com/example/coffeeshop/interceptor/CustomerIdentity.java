@@ -0,0 +1,42 @@
+package com.example.coffeeshop.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves who is making a request
+ *
+ * Shared by the rate limiter and idempotency checks so a customer
+ * is always counted and deduplicated under the same identity
+ */
+public final class CustomerIdentity {
+
+    private CustomerIdentity() {
+    }
+
+    /**
+     * Customer ID from the X-Customer-Id header, or the client IP for anonymous guests
+     */
+    public static String resolveCustomerId(HttpServletRequest request) {
+        return isGuest(request) ? getClientIP(request) : request.getHeader("X-Customer-Id");
+    }
+
+    /**
+     * Anonymous users (no customer ID) are guests
+     */
+    public static boolean isGuest(HttpServletRequest request) {
+        String customerId = request.getHeader("X-Customer-Id");
+        return customerId == null || customerId.isEmpty();
+    }
+
+    /**
+     * Extract client IP address from request
+     * Handles proxies and load balancers
+     */
+    private static String getClientIP(HttpServletRequest request) {
+        String xfHeader = request.getHeader("X-Forwarded-For");
+        if (xfHeader == null) {
+            return request.getRemoteAddr();
+        }
+        return xfHeader.split(",")[0];
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.coffeeshop.interceptor;
+
+import com.example.coffeeshop.filter.CachedBodyFilter.CachedBodyRequest;
+import com.example.coffeeshop.model.IdempotentRequest;
+import com.example.coffeeshop.model.IdempotentRequest.CachedResponse;
+import com.example.coffeeshop.service.IdempotencyService;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Interceptor that replays responses for retried orders with the same Idempotency-Key
+ *
+ * Runs before the rate limiter, so a replay never consumes a token
+ *
+ * Real-world analogy:
+ * Like the cashier who recognizes a repeated order and hands back
+ * the same receipt instead of ringing it up twice
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyInterceptor implements HandlerInterceptor {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * Request attribute holding the {@link IdempotentRequest} claimed by this request
+     */
+    public static final String IDEMPOTENCY_CLAIM_ATTRIBUTE = "coffeeshop.idempotencyClaim";
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    // How long a duplicate waits for the original request before giving up
+    @Value("${idempotency.replay-wait-seconds:10}")
+    private long replayWaitSeconds;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request,
+                             HttpServletResponse response,
+                             Object handler) throws Exception {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (!"POST".equalsIgnoreCase(request.getMethod())
+                || idempotencyKey == null || idempotencyKey.isBlank()) {
+            return true; // Nothing to deduplicate
+        }
+
+        // Keys are scoped per customer so one client can never replay another's order.
+        // The length prefix keeps "a" + "b:c" and "a:b" + "c" apart.
+        String customerId = CustomerIdentity.resolveCustomerId(request);
+        IdempotentRequest claim = new IdempotentRequest(
+                customerId.length() + ":" + customerId + ":" + idempotencyKey, hashBody(request));
+
+        while (true) {
+            IdempotentRequest original = idempotencyService.claim(claim);
+            if (original == null) {
+                request.setAttribute(IDEMPOTENCY_CLAIM_ATTRIBUTE, claim);
+                return true; // First request with this key, process it normally
+            }
+
+            if (!original.getRequestHash().equals(claim.getRequestHash())) {
+                log.warn("Idempotency key {} reused with a different order", claim.getKey());
+                response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+                response.getWriter().write("This Idempotency-Key was already used for a different order.");
+                return false;
+            }
+
+            try {
+                writeReplay(response, original.getResponse().get(replayWaitSeconds, TimeUnit.SECONDS));
+                return false;
+            } catch (ExecutionException e) {
+                // Original request was rejected or failed, try to process this one instead
+                log.info("Original request for idempotency key {} did not complete, retrying", claim.getKey());
+            } catch (TimeoutException e) {
+                response.setStatus(HttpStatus.CONFLICT.value());
+                response.getWriter().write("A request with this Idempotency-Key is still in progress.");
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+                                HttpServletResponse response,
+                                Object handler,
+                                Exception ex) {
+        // Frees the key if the request was rate limited or failed before recording a response
+        Object claim = request.getAttribute(IDEMPOTENCY_CLAIM_ATTRIBUTE);
+        if (claim != null) {
+            idempotencyService.release((IdempotentRequest) claim);
+        }
+    }
+
+    private void writeReplay(HttpServletResponse response, CachedResponse cached) throws Exception {
+        log.info("Replaying cached response for duplicate request");
+
+        response.setStatus(cached.status());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader("Idempotent-Replayed", "true");
+        // Bytes rather than getWriter(), which would append a Latin-1 charset the original never had
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(cached.body()));
+    }
+
+    /**
+     * SHA-256 of the body buffered by CachedBodyFilter
+     *
+     * JSON is re-serialized with sorted keys first, so a client that re-serializes
+     * its retry with different whitespace or key order still matches
+     */
+    private String hashBody(HttpServletRequest request) throws Exception {
+        CachedBodyRequest cached = WebUtils.getNativeRequest(request, CachedBodyRequest.class);
+        byte[] body = cached != null ? cached.getBody() : new byte[0];
+
+        try {
+            body = objectMapper.writer()
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(objectMapper.readValue(body, Object.class));
+        } catch (JacksonException e) {
+            // Not valid JSON, fall back to the raw bytes
+        }
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    }
+}
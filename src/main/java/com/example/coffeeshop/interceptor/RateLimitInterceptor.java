@@ -29,14 +29,11 @@ public class RateLimitInterceptor implements HandlerInterceptor {
                              Object handler) throws Exception {
 
         // Extract customer identifier (could be user ID from JWT in real app)
-        String customerId = request.getHeader("X-Customer-Id");
-        String customerType = request.getHeader("X-Customer-Type");
-
         // Default to IP address if no customer ID provided
-        if (customerId == null || customerId.isEmpty()) {
-            customerId = getClientIP(request);
-            customerType = "GUEST"; // Anonymous users are guests
-        }
+        String customerId = CustomerIdentity.resolveCustomerId(request);
+        String customerType = CustomerIdentity.isGuest(request)
+                ? "GUEST" // Anonymous users are guests
+                : request.getHeader("X-Customer-Type");
 
         // Default customer type
         if (customerType == null || customerType.isEmpty()) {
@@ -64,16 +61,4 @@ public class RateLimitInterceptor implements HandlerInterceptor {
             return false; // Block request
         }
     }
-
-    /**
-     * Extract client IP address from request
-     * Handles proxies and load balancers
-     */
-    private String getClientIP(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
-        }
-        return xfHeader.split(",")[0];
-    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.coffeeshop.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request carrying an Idempotency-Key and the response it eventually produces
+ */
+@Getter
+@RequiredArgsConstructor
+public class IdempotentRequest {
+    private final String key;
+    private final String requestHash; // Fingerprint of the body, so a reused key with a different order is caught
+    private final CompletableFuture<CachedResponse> response = new CompletableFuture<>();
+
+    /**
+     * Response replayed to duplicates of this request
+     */
+    public record CachedResponse(int status, Object body) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.coffeeshop.service;
+
+import com.example.coffeeshop.model.IdempotentRequest;
+import com.example.coffeeshop.model.IdempotentRequest.CachedResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service to deduplicate retried requests carrying the same Idempotency-Key
+ *
+ * Think of this as the order ticket rail: if a ticket for this request
+ * is already hanging there, the customer gets that ticket back instead
+ * of the barista making a second drink
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    // Requests still being processed; never evicted, so an order in progress can't be forgotten
+    private final ConcurrentHashMap<String, IdempotentRequest> inFlight = new ConcurrentHashMap<>();
+
+    // Completed requests, bounded and expired by IdempotencyConfig
+    private final Cache<String, IdempotentRequest> idempotencyCache;
+
+    /**
+     * Try to become the owner of the request's key
+     *
+     * @param request - new request for a scoped idempotency key
+     * @return null if the caller now owns the key and must process the request,
+     *         otherwise the original request, pending or completed
+     */
+    public IdempotentRequest claim(IdempotentRequest request) {
+        IdempotentRequest[] original = new IdempotentRequest[1];
+
+        // Checking both stores under the key's lock means a request moving from
+        // in-flight to completed is always found in one of them
+        inFlight.compute(request.getKey(), (key, pending) -> {
+            if (pending != null) {
+                original[0] = pending;
+                return pending;
+            }
+            original[0] = idempotencyCache.getIfPresent(key);
+            return original[0] == null ? request : null;
+        });
+
+        if (original[0] == null) {
+            log.info("Claimed idempotency key: {}", request.getKey());
+        } else {
+            log.info("Duplicate request for idempotency key: {}", request.getKey());
+        }
+        return original[0];
+    }
+
+    /**
+     * Record the response of the owning request
+     * Every waiting and future duplicate receives this response
+     */
+    public void complete(IdempotentRequest request, CachedResponse response) {
+        request.getResponse().complete(response);
+
+        inFlight.computeIfPresent(request.getKey(), (key, pending) -> {
+            if (pending != request) {
+                return pending; // Not our claim, leave it alone
+            }
+            idempotencyCache.put(key, request);
+            return null;
+        });
+    }
+
+    /**
+     * Give up a claim whose request never produced a response
+     * (e.g. it was rate limited or failed), so a retry can be processed again.
+     * Does nothing if the response was already recorded.
+     */
+    public void release(IdempotentRequest request) {
+        if (request.getResponse().isDone()) {
+            return;
+        }
+
+        // Remove before failing so woken duplicates can claim the key straight away
+        inFlight.remove(request.getKey(), request);
+        request.getResponse().completeExceptionally(
+                new IllegalStateException("Original request did not complete for key: " + request.getKey()));
+        log.info("Released idempotency key: {}", request.getKey());
+    }
+}
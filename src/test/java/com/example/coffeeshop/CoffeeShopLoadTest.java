@@ -0,0 +1,386 @@
+package com.example.coffeeshop;
+
+import com.example.coffeeshop.config.RateLimiterConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test and latency SLO gate for the full HTTP stack
+ *
+ * Drives a fixed arrival rate of menu polls, orders from every customer tier,
+ * rate-limit-status calls and abusive key churn against the real server,
+ * then fails the build if latency, throughput, 429 accuracy or heap growth regress.
+ * Orders carry an Idempotency-Key and some are retried, so replays and the
+ * idempotency cache are part of the measured path.
+ *
+ * Tagged "load" so it only runs in the load-test profile, where a regression fails the build.
+ * Every knob can be overridden with a system property, e.g.
+ * mvn test -Pload-test -Dload.rate=200 -Dslo.p99-millis=100
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.example.coffeeshop=ERROR") // Console logging would dominate latency
+class CoffeeShopLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    // -------------------------------------------------------------------------
+    // Load profile
+    // -------------------------------------------------------------------------
+
+    private static final int ARRIVAL_RATE = Integer.getInteger("load.rate", 100); // requests per second
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 15);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("load.warmup-requests", 500);
+    private static final long SEED = Long.getLong("load.seed", 42L);
+
+    // Customers per tier; guests mostly hit their limit, premium members rarely do
+    private static final int GUEST_POOL = 50;
+    private static final int STANDARD_POOL = 100;
+    private static final int PREMIUM_POOL = 40;
+
+    // -------------------------------------------------------------------------
+    // SLO thresholds
+    // -------------------------------------------------------------------------
+
+    private static final long P50_MILLIS = Long.getLong("slo.p50-millis", 25);
+    private static final long P99_MILLIS = Long.getLong("slo.p99-millis", 250);
+    private static final long P999_MILLIS = Long.getLong("slo.p999-millis", 1000);
+    private static final double MIN_THROUGHPUT_RATIO =
+            Double.parseDouble(System.getProperty("slo.min-throughput-ratio", "0.95"));
+    private static final double MIN_429_ACCURACY =
+            Double.parseDouble(System.getProperty("slo.min-429-accuracy", "1.0"));
+    private static final long MAX_HEAP_GROWTH_MB = Long.getLong("slo.max-heap-growth-mb", 64);
+
+    private static final String ORDER_BODY = "{\"coffeeType\":\"Latte\",\"size\":\"LARGE\",\"quantity\":1}";
+
+    private enum Operation { MENU, ORDER, STATUS, CHURN }
+
+    /**
+     * One request of the plan, the customer sending it and its Idempotency-Key (null for none)
+     */
+    private record PlannedRequest(Operation operation, String tier, String key, String idempotencyKey) {
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void fullStack_MeetsLatencyAndRateLimitSlos() throws Exception {
+        // Buckets refill after one minute, so a longer run would make the expected 429s ambiguous
+        assertTrue(DURATION_SECONDS < 60, "Load test must finish within one rate limit window.");
+
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        // Warm up every path (menu, status, orders, 429s) with the same mix but throwaway customers
+        run(plan(WARMUP_REQUESTS, new Random(SEED), "warmup-" + runId));
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+
+        // Act
+        List<PlannedRequest> plan = plan(ARRIVAL_RATE * DURATION_SECONDS, new Random(SEED), runId);
+        RunResult result = run(plan);
+
+        long heapGrowthMb = (usedHeapAfterGc(memory) - heapBefore) / (1024 * 1024);
+
+        // Measure
+        long[] sorted = result.latencyNanos.clone();
+        Arrays.sort(sorted);
+        double p50 = percentileMillis(sorted, 0.50);
+        double p99 = percentileMillis(sorted, 0.99);
+        double p999 = percentileMillis(sorted, 0.999);
+        double throughput = plan.size() / (result.elapsedNanos / 1e9);
+        RateLimitAccuracy accuracy = rateLimitAccuracy(plan, result);
+        int duplicateOrders = duplicateOrders(plan, result);
+
+        long[] replayLatencies = new long[result.replays];
+        for (int i = 0, r = 0; i < plan.size(); i++) {
+            if (result.replayed[i]) {
+                replayLatencies[r++] = result.latencyNanos[i];
+            }
+        }
+        Arrays.sort(replayLatencies);
+
+        System.out.printf("""
+                        ---- Coffee Shop load test (seed %d) ----
+                        requests:      %d at %d req/s for %d s
+                        latency:       p50 %.1f ms | p99 %.1f ms | p999 %.1f ms
+                        throughput:    %.1f req/s
+                        replays:       %d (p99 %.1f ms), %d duplicate orders
+                        429 accuracy:  %.4f (%d/%d customers, %d unexpected 429, %d missed 429)
+                        errors:        %d
+                        heap growth:   %d MB
+                        %n""",
+                SEED, plan.size(), ARRIVAL_RATE, DURATION_SECONDS,
+                p50, p99, p999, throughput,
+                result.replays, replayLatencies.length == 0 ? 0.0 : percentileMillis(replayLatencies, 0.99),
+                duplicateOrders,
+                accuracy.ratio(), accuracy.matchedKeys, accuracy.totalKeys,
+                accuracy.unexpected429, accuracy.missed429,
+                result.errors, heapGrowthMb);
+
+        // Assert
+        assertAll("SLO",
+                () -> assertEquals(0, result.errors, "Every request should get a 200 or 429 response."),
+                () -> assertEquals(0, duplicateOrders, "A retried Idempotency-Key should never create a second order."),
+                () -> assertTrue(p50 <= P50_MILLIS, "p50 " + p50 + " ms exceeds " + P50_MILLIS + " ms."),
+                () -> assertTrue(p99 <= P99_MILLIS, "p99 " + p99 + " ms exceeds " + P99_MILLIS + " ms."),
+                () -> assertTrue(p999 <= P999_MILLIS, "p999 " + p999 + " ms exceeds " + P999_MILLIS + " ms."),
+                () -> assertTrue(throughput >= ARRIVAL_RATE * MIN_THROUGHPUT_RATIO,
+                        "Throughput " + throughput + " req/s is below the " + ARRIVAL_RATE + " req/s target."),
+                () -> assertTrue(accuracy.ratio() >= MIN_429_ACCURACY,
+                        "429 accuracy " + accuracy.ratio() + " is below " + MIN_429_ACCURACY + "."),
+                () -> assertTrue(heapGrowthMb <= MAX_HEAP_GROWTH_MB,
+                        "Heap grew " + heapGrowthMb + " MB, more than " + MAX_HEAP_GROWTH_MB + " MB."));
+    }
+
+    // -------------------------------------------------------------------------
+    // Workload
+    // -------------------------------------------------------------------------
+
+    /**
+     * Build a deterministic request mix:
+     * 40% menu polls, 35% orders, 15% rate-limit-status, 10% abusive key churn.
+     * Customers are 30% GUEST, 50% STANDARD, 20% PREMIUM.
+     * Orders use a fresh Idempotency-Key 80% of the time, retry the customer's
+     * previous key 10% of the time and send none otherwise; churn always uses a fresh key.
+     */
+    private List<PlannedRequest> plan(int size, Random random, String runId) {
+        List<PlannedRequest> plan = new ArrayList<>(size);
+        Map<String, String> lastIdempotencyKey = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            String freshIdempotencyKey = runId + "-order-" + i;
+            int roll = random.nextInt(100);
+            if (roll >= 90) {
+                // Every request from a brand new customer, like a bot rotating IDs and keys
+                plan.add(new PlannedRequest(Operation.CHURN, "STANDARD", runId + "-churn-" + i, freshIdempotencyKey));
+                continue;
+            }
+
+            Operation operation = roll < 40 ? Operation.MENU : roll < 75 ? Operation.ORDER : Operation.STATUS;
+            int tierRoll = random.nextInt(100);
+            String tier = tierRoll < 30 ? "GUEST" : tierRoll < 80 ? "STANDARD" : "PREMIUM";
+            int pool = switch (tier) {
+                case "GUEST" -> GUEST_POOL;
+                case "PREMIUM" -> PREMIUM_POOL;
+                default -> STANDARD_POOL;
+            };
+            String key = runId + "-" + tier.toLowerCase() + "-" + random.nextInt(pool);
+
+            String idempotencyKey = null;
+            if (operation == Operation.ORDER) {
+                int keyRoll = random.nextInt(100);
+                if (keyRoll < 80) {
+                    idempotencyKey = freshIdempotencyKey;
+                    lastIdempotencyKey.put(key, idempotencyKey);
+                } else if (keyRoll < 90) {
+                    // Client retry after a timeout, falls back to a fresh key if nothing to retry
+                    idempotencyKey = lastIdempotencyKey.computeIfAbsent(key, k -> freshIdempotencyKey);
+                }
+            }
+            plan.add(new PlannedRequest(operation, tier, key, idempotencyKey));
+        }
+        return plan;
+    }
+
+    private HttpRequest toHttpRequest(PlannedRequest planned) {
+        String path = switch (planned.operation) {
+            case MENU -> "/menu";
+            case STATUS -> "/rate-limit-status";
+            case ORDER, CHURN -> "/order";
+        };
+        HttpRequest.Builder builder = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/coffee" + path))
+                .timeout(Duration.ofSeconds(10));
+
+        if ("GUEST".equals(planned.tier)) {
+            // Guests are identified by IP, simulated through the proxy header
+            builder.header("X-Forwarded-For", planned.key);
+        } else {
+            builder.header("X-Customer-Id", planned.key)
+                    .header("X-Customer-Type", planned.tier);
+        }
+
+        if (planned.idempotencyKey != null) {
+            builder.header("Idempotency-Key", planned.idempotencyKey);
+        }
+
+        if (path.equals("/order")) {
+            return builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ORDER_BODY))
+                    .build();
+        }
+        return builder.GET().build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Open-model driver
+    // -------------------------------------------------------------------------
+
+    private static class RunResult {
+        long[] latencyNanos;
+        int[] statuses;
+        boolean[] replayed;
+        long elapsedNanos;
+        int errors;
+        int replays;
+    }
+
+    /**
+     * Send the plan at a fixed arrival rate regardless of how fast responses come back.
+     * Latency is measured from the scheduled send time, so a stalled server
+     * shows up as queueing delay instead of silently lowering the load.
+     */
+    private RunResult run(List<PlannedRequest> plan) throws Exception {
+        int size = plan.size();
+        RunResult result = new RunResult();
+        result.latencyNanos = new long[size];
+        result.statuses = new int[size];
+        result.replayed = new boolean[size];
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ARRIVAL_RATE;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(size);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < size; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int index = i;
+            inFlight.add(client.sendAsync(toHttpRequest(plan.get(i)), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        result.latencyNanos[index] = System.nanoTime() - scheduled;
+                        result.statuses[index] = error == null ? response.statusCode() : -1;
+                        result.replayed[index] = error == null
+                                && response.headers().firstValue("Idempotent-Replayed").isPresent();
+                        return null;
+                    }));
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        result.elapsedNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < size; i++) {
+            if (result.statuses[i] != 200 && result.statuses[i] != 429) {
+                result.errors++;
+            }
+            if (result.replayed[i]) {
+                result.replays++;
+            }
+        }
+        return result;
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    private static class RateLimitAccuracy {
+        int totalKeys;
+        int matchedKeys;
+        int unexpected429;
+        int missed429;
+
+        double ratio() {
+            return totalKeys == 0 ? 1.0 : (double) matchedKeys / totalKeys;
+        }
+    }
+
+    /**
+     * Compare the 429s each customer received with what their configured
+     * bucket capacity allows inside a single refill window.
+     * Replays are answered before the rate limiter, so they don't spend a token;
+     * which retry ends up replayed depends on timing, so it is read from the response.
+     */
+    private RateLimitAccuracy rateLimitAccuracy(List<PlannedRequest> plan, RunResult result) {
+        Map<String, Integer> sent = new HashMap<>();
+        Map<String, Integer> rejected = new HashMap<>();
+        Map<String, String> tiers = new HashMap<>();
+
+        for (int i = 0; i < plan.size(); i++) {
+            PlannedRequest planned = plan.get(i);
+            tiers.put(planned.key, planned.tier);
+            if (!result.replayed[i]) {
+                sent.merge(planned.key, 1, Integer::sum);
+            }
+            if (result.statuses[i] == 429) {
+                rejected.merge(planned.key, 1, Integer::sum);
+            }
+        }
+
+        RateLimitAccuracy accuracy = new RateLimitAccuracy();
+        for (Map.Entry<String, Integer> entry : sent.entrySet()) {
+            long expected = Math.max(0, entry.getValue() - capacity(tiers.get(entry.getKey())));
+            int observed = rejected.getOrDefault(entry.getKey(), 0);
+
+            accuracy.totalKeys++;
+            if (observed == expected) {
+                accuracy.matchedKeys++;
+            } else if (observed > expected) {
+                accuracy.unexpected429 += observed - expected;
+            } else {
+                accuracy.missed429 += expected - observed;
+            }
+        }
+        return accuracy;
+    }
+
+    /**
+     * Count Idempotency-Keys that produced more than one freshly created order
+     */
+    private int duplicateOrders(List<PlannedRequest> plan, RunResult result) {
+        Map<String, Integer> created = new HashMap<>();
+        for (int i = 0; i < plan.size(); i++) {
+            PlannedRequest planned = plan.get(i);
+            if (planned.idempotencyKey != null && result.statuses[i] == 200 && !result.replayed[i]) {
+                created.merge(planned.key + "|" + planned.idempotencyKey, 1, Integer::sum);
+            }
+        }
+        return (int) created.values().stream().filter(count -> count > 1).count();
+    }
+
+    // Read from the real bucket factories so the test follows configuration changes
+    private static long capacity(String tier) {
+        return switch (tier) {
+            case "GUEST" -> RateLimiterConfig.createGuestBucket().getAvailableTokens();
+            case "PREMIUM" -> RateLimiterConfig.createPremiumBucket().getAvailableTokens();
+            default -> RateLimiterConfig.createStandardBucket().getAvailableTokens();
+        };
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
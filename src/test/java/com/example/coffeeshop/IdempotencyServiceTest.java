@@ -0,0 +1,182 @@
+package com.example.coffeeshop;
+
+import com.example.coffeeshop.model.IdempotentRequest;
+import com.example.coffeeshop.model.IdempotentRequest.CachedResponse;
+import com.example.coffeeshop.service.IdempotencyService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+
+    private Cache<String, IdempotentRequest> idempotencyCache;
+
+    private static final String TEST_KEY = "test-customer-123:order-abc";
+    private static final String BODY_HASH = "body-hash";
+    private static final int MAX_KEYS = 10;
+    private static final CachedResponse ORDER_RESPONSE = new CachedResponse(200, Map.of("orderId", "order-1"));
+
+    @BeforeEach
+    void setUp() {
+        // Evict on the calling thread so cleanUp() makes eviction deterministic
+        idempotencyCache = Caffeine.newBuilder()
+                .maximumSize(MAX_KEYS)
+                .executor(Runnable::run)
+                .build();
+        idempotencyService = new IdempotencyService(idempotencyCache);
+    }
+
+    // -------------------------------------------------------------------------
+    // 1. Claim and Replay Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    void claim_ReturnsNull_ForFirstRequest() {
+        // Act & Assert
+        assertNull(idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH)), "First request should own the key.");
+        assertEquals(0, idempotencyCache.estimatedSize(), "Pending requests should not be in the bounded cache.");
+    }
+
+    @Test
+    void claim_ReturnsCompletedResponse_ForReplay() throws Exception {
+        // Arrange
+        IdempotentRequest first = new IdempotentRequest(TEST_KEY, BODY_HASH);
+        idempotencyService.claim(first);
+        idempotencyService.complete(first, ORDER_RESPONSE);
+
+        // Act
+        IdempotentRequest replay = idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH));
+
+        // Assert
+        assertSame(first, replay, "Replay should not own the key.");
+        assertSame(ORDER_RESPONSE, replay.getResponse().get(), "Replay should receive the original response.");
+        assertEquals(1, idempotencyCache.estimatedSize(), "Completed request should move to the cache.");
+    }
+
+    @Test
+    void release_AllowsRetry_WhenOriginalDidNotComplete() {
+        // Arrange
+        IdempotentRequest first = new IdempotentRequest(TEST_KEY, BODY_HASH);
+        idempotencyService.claim(first);
+        IdempotentRequest waiting = idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH));
+
+        // Act
+        idempotencyService.release(first);
+
+        // Assert
+        assertTrue(waiting.getResponse().isCompletedExceptionally(),
+                "Waiting duplicate should be told the original failed.");
+        assertNull(idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH)),
+                "Retry should own the key after release.");
+    }
+
+    @Test
+    void release_KeepsResponse_WhenAlreadyCompleted() {
+        // Arrange
+        IdempotentRequest first = new IdempotentRequest(TEST_KEY, BODY_HASH);
+        idempotencyService.claim(first);
+        idempotencyService.complete(first, ORDER_RESPONSE);
+
+        // Act
+        idempotencyService.release(first);
+
+        // Assert
+        assertNotNull(idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH)),
+                "Completed response should still be replayed.");
+    }
+
+    @Test
+    void complete_IgnoresClaim_ThatWasReleasedAndReclaimed() throws Exception {
+        // Arrange: the first claim is released and a retry takes over the key
+        IdempotentRequest first = new IdempotentRequest(TEST_KEY, BODY_HASH);
+        idempotencyService.claim(first);
+        idempotencyService.release(first);
+        IdempotentRequest retry = new IdempotentRequest(TEST_KEY, BODY_HASH);
+        idempotencyService.claim(retry);
+
+        // Act
+        idempotencyService.complete(first, ORDER_RESPONSE);
+
+        // Assert
+        assertFalse(retry.getResponse().isDone(), "Another request's claim should not be completed.");
+        assertSame(retry, idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH)),
+                "Retry should still own the key.");
+    }
+
+    // -------------------------------------------------------------------------
+    // 2. Bounded Cache Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    void pendingClaim_SurvivesCacheFilledToMaximumSize() throws Exception {
+        // Arrange
+        IdempotentRequest pending = new IdempotentRequest(TEST_KEY, BODY_HASH);
+        idempotencyService.claim(pending);
+
+        // Act: key churn completes far more requests than the cache can hold
+        for (int i = 0; i < MAX_KEYS * 10; i++) {
+            IdempotentRequest churn = new IdempotentRequest("churn-" + i, BODY_HASH);
+            idempotencyService.claim(churn);
+            idempotencyService.complete(churn, ORDER_RESPONSE);
+        }
+        idempotencyCache.cleanUp();
+
+        // Assert: duplicates still find the pending order instead of creating another
+        assertTrue(idempotencyCache.estimatedSize() <= MAX_KEYS, "Cache should stay bounded.");
+        IdempotentRequest duplicate = idempotencyService.claim(new IdempotentRequest(TEST_KEY, BODY_HASH));
+        assertSame(pending, duplicate, "Pending claim should not be evicted.");
+
+        idempotencyService.complete(pending, ORDER_RESPONSE);
+        assertSame(ORDER_RESPONSE, duplicate.getResponse().get(1, TimeUnit.SECONDS),
+                "Waiting duplicate should receive the original response.");
+    }
+
+    // -------------------------------------------------------------------------
+    // 3. Concurrent Duplicate Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    void claim_ElectsSingleOwner_UnderConcurrentDuplicates() throws Exception {
+        // Arrange
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger owners = new AtomicInteger();
+        List<Future<CachedResponse>> results = new ArrayList<>();
+
+        // Act: every thread races for the same key, the owner "creates" the order
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                IdempotentRequest request = new IdempotentRequest(TEST_KEY, BODY_HASH);
+                IdempotentRequest original = idempotencyService.claim(request);
+                if (original == null) {
+                    owners.incrementAndGet();
+                    idempotencyService.complete(request, ORDER_RESPONSE);
+                    return ORDER_RESPONSE;
+                }
+                return original.getResponse().get(5, TimeUnit.SECONDS);
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        for (Future<CachedResponse> result : results) {
+            assertSame(ORDER_RESPONSE, result.get(5, TimeUnit.SECONDS),
+                    "Every duplicate should receive the owner's response.");
+        }
+        assertEquals(1, owners.get(), "Exactly one request should create the order.");
+        executor.shutdown();
+    }
+}
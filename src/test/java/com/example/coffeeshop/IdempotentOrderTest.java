@@ -0,0 +1,191 @@
+package com.example.coffeeshop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class IdempotentOrderTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private static final int DUPLICATES = 10;
+    private static final Map<String, Object> ORDER = Map.of("coffeeType", "Latte", "size", "LARGE", "quantity", 1);
+
+    // Based on RateLimiterConfig
+    private static final int PREMIUM_CAPACITY = 20;
+
+    @Test
+    void concurrentDuplicates_CreateSingleOrder_AndConsumeSingleToken() throws Exception {
+        // Arrange
+        String customerId = "premium-" + UUID.randomUUID();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Customer-Id", customerId);
+        headers.set("X-Customer-Type", "PREMIUM");
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+
+        // Act
+        List<ResponseEntity<Map>> responses = submitConcurrently(headers);
+
+        // Assert: every retry sees the same order
+        Object orderId = responses.get(0).getBody().get("orderId");
+        for (ResponseEntity<Map> response : responses) {
+            assertEquals(HttpStatus.OK, response.getStatusCode(), "Duplicate should not be rejected.");
+            assertEquals(orderId, response.getBody().get("orderId"), "Duplicate should replay the same order.");
+        }
+
+        ResponseEntity<Map> orders = restTemplate.exchange("/api/coffee/orders", HttpMethod.GET,
+                new HttpEntity<>(headers), Map.class);
+        assertEquals(1, orders.getBody().get("totalOrders"), "Only one order should be stored.");
+
+        // One token for the order, one for /orders, one for this status call
+        ResponseEntity<Map> status = restTemplate.exchange("/api/coffee/rate-limit-status", HttpMethod.GET,
+                new HttpEntity<>(headers), Map.class);
+        assertEquals(PREMIUM_CAPACITY - 3, status.getBody().get("remainingRequests"),
+                "Replays should not consume rate limit tokens.");
+    }
+
+    @Test
+    void concurrentDuplicates_AreNotRateLimited_BeyondGuestCapacity() throws Exception {
+        // Arrange: a guest is identified by IP and may only place 2 orders per minute
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", "guest-" + UUID.randomUUID());
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+
+        // Act
+        List<ResponseEntity<Map>> responses = submitConcurrently(headers);
+
+        // Assert
+        for (ResponseEntity<Map> response : responses) {
+            assertEquals(HttpStatus.OK, response.getStatusCode(), "Replays should not hit the guest limit.");
+        }
+    }
+
+    @Test
+    void differentKeys_CreateSeparateOrders() {
+        // Arrange
+        String customerId = "standard-" + UUID.randomUUID();
+
+        // Act
+        Object first = placeOrder(customerId, UUID.randomUUID().toString()).getBody().get("orderId");
+        Object second = placeOrder(customerId, UUID.randomUUID().toString()).getBody().get("orderId");
+
+        // Assert
+        assertNotEquals(first, second, "Distinct keys should create distinct orders.");
+    }
+
+    @Test
+    void replay_MatchesOriginalContentTypeAndBody() {
+        // Arrange
+        String customerId = "standard-" + UUID.randomUUID();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // Act
+        ResponseEntity<Map> original = placeOrder(customerId, idempotencyKey);
+        ResponseEntity<Map> replay = placeOrder(customerId, idempotencyKey);
+
+        // Assert
+        assertEquals("true", replay.getHeaders().getFirst("Idempotent-Replayed"), "Second call should be a replay.");
+        assertEquals(original.getHeaders().getContentType(), replay.getHeaders().getContentType(),
+                "Replay should have the same content type as the original.");
+        assertEquals(original.getBody(), replay.getBody(), "Replay should have the same body as the original.");
+    }
+
+    @Test
+    void replay_IgnoresWhitespaceAndKeyOrder() {
+        // Arrange
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Customer-Id", "standard-" + UUID.randomUUID());
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        String compact = "{\"coffeeType\":\"Latte\",\"size\":\"LARGE\",\"quantity\":1}";
+        String reformatted = "{ \"quantity\": 1,\n  \"size\": \"LARGE\", \"coffeeType\": \"Latte\" }";
+
+        // Act
+        ResponseEntity<Map> original = restTemplate.postForEntity("/api/coffee/order",
+                new HttpEntity<>(compact, headers), Map.class);
+        ResponseEntity<Map> retry = restTemplate.postForEntity("/api/coffee/order",
+                new HttpEntity<>(reformatted, headers), Map.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, retry.getStatusCode(), "A re-serialized retry is the same order.");
+        assertEquals(original.getBody().get("orderId"), retry.getBody().get("orderId"),
+                "Retry should replay the original order.");
+    }
+
+    @Test
+    void reusedKey_WithDifferentOrder_IsRejected() {
+        // Arrange
+        String customerId = "standard-" + UUID.randomUUID();
+        String idempotencyKey = UUID.randomUUID().toString();
+        placeOrder(customerId, idempotencyKey);
+
+        // Act
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Customer-Id", customerId);
+        headers.set("Idempotency-Key", idempotencyKey);
+        Map<String, Object> otherOrder = Map.of("coffeeType", "Mocha", "size", "SMALL", "quantity", 3);
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/coffee/order",
+                new HttpEntity<>(otherOrder, headers), String.class);
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode(),
+                "A different order must not replay the first one.");
+    }
+
+    @Test
+    void keyScope_DoesNotCollide_AcrossCustomers() {
+        // Arrange: "a" + "b:c" and "a:b" + "c" would both read "a:b:c" if simply joined
+        String prefix = UUID.randomUUID().toString();
+
+        // Act
+        ResponseEntity<Map> first = placeOrder(prefix, "b:c");
+        ResponseEntity<Map> second = placeOrder(prefix + ":b", "c");
+
+        // Assert
+        assertEquals(HttpStatus.OK, second.getStatusCode(), "Another customer's key should not conflict.");
+        assertNull(second.getHeaders().getFirst("Idempotent-Replayed"), "Another customer's order must not be replayed.");
+        assertNotEquals(first.getBody().get("orderId"), second.getBody().get("orderId"),
+                "Each customer should get their own order.");
+    }
+
+    private ResponseEntity<Map> placeOrder(String customerId, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Customer-Id", customerId);
+        headers.set("Idempotency-Key", idempotencyKey);
+        return restTemplate.postForEntity("/api/coffee/order", new HttpEntity<>(ORDER, headers), Map.class);
+    }
+
+    private List<ResponseEntity<Map>> submitConcurrently(HttpHeaders headers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(DUPLICATES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<Map>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < DUPLICATES; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return restTemplate.postForEntity("/api/coffee/order",
+                        new HttpEntity<>(ORDER, headers), Map.class);
+            }));
+        }
+        start.countDown();
+
+        List<ResponseEntity<Map>> responses = new ArrayList<>();
+        for (Future<ResponseEntity<Map>> future : futures) {
+            responses.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return responses;
+    }
+}